@@ -100,4 +100,15 @@ public interface KittenTrackerConfig extends Config
     {
         return false;
     }
+
+    @ConfigItem(
+            keyName = "sharedState",
+            name = "Share timers between clients",
+            description = "Keep timers in a shared file so multiple RuneLite clients on this computer stay in sync per account.",
+            position = 9
+    )
+    default boolean sharedState()
+    {
+        return false;
+    }
 }
\ No newline at end of file
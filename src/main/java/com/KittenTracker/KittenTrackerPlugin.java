@@ -5,6 +5,8 @@
 package com.KittenTracker;
 
 import com.google.inject.Provides;
+import java.io.File;
+import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
@@ -24,6 +26,8 @@ import net.runelite.api.events.ChatMessage;
 import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.GameTick;
 import net.runelite.client.Notifier;
+import net.runelite.client.RuneLite;
+import net.runelite.client.callback.ClientThread;
 import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
@@ -47,6 +51,9 @@ public class KittenTrackerPlugin extends Plugin
     private static final String REMAINING_ATTENTION_KEY = "remainingAttention";
     private static final String SYNCED_GROWTH_KEY = "syncedGrowthDuration";
     private static final String CURRENT_ATTENTION_KEY = "currentAttentionDuration";
+    private static final String SHARED_STATE_KEY = "sharedState";
+    private static final String TIMERS_ACCOUNT_KEY = "timersAccountHash";
+    private static final File SHARED_STATE_FILE = new File(RuneLite.RUNELITE_DIR, "kittentracker-state.dat");
 
 
     public static final Duration TOTAL_GROWTH_TIME = Duration.ofHours(3);
@@ -78,6 +85,9 @@ public class KittenTrackerPlugin extends Plugin
     @Inject
     private KittenTrackerOverlay overlay;
 
+    @Inject
+    private ClientThread clientThread;
+
     @Inject
     private ConfigManager configManager;
 
@@ -93,6 +103,12 @@ public class KittenTrackerPlugin extends Plugin
     private boolean kittenFollowing = false;
 
     private ScheduledExecutorService executor;
+    // Opened and closed by startUp/shutDown on the plugin manager thread, and on the client thread
+    // when the option is toggled, while the client thread saves through it, so read it once into
+    // a local before use.
+    private volatile KittenTrackerSharedState sharedState;
+    // The account hash reads as logged out by the time the login screen shows, so keep the last real one.
+    private volatile long lastAccountHash = KittenTrackerSharedState.LOGGED_OUT_ACCOUNT;
 
     private Duration growthTimeRemaining;
     private Duration hungerTimeRemaining;
@@ -106,6 +122,10 @@ public class KittenTrackerPlugin extends Plugin
     protected void startUp()
     {
         overlayManager.add(overlay);
+        if (config.sharedState())
+        {
+            openSharedState();
+        }
         executor = Executors.newSingleThreadScheduledExecutor();
         executor.scheduleAtFixedRate(this::updateTimersForOverlay, 100, 1000, TimeUnit.MILLISECONDS);
     }
@@ -119,6 +139,7 @@ public class KittenTrackerPlugin extends Plugin
         }
         overlayManager.remove(overlay);
         executor.shutdownNow();
+        closeSharedState();
     }
 
     @Subscribe
@@ -127,6 +148,9 @@ public class KittenTrackerPlugin extends Plugin
         boolean foundKitten = false;
         if (client.getGameState() == GameState.LOGGED_IN && client.getLocalPlayer() != null)
         {
+            // Remember the account for saves that happen after logging out.
+            getAccountHash();
+
             for (NPC npc : client.getNpcs())
             {
                 if (KITTEN_IDS.contains(npc.getId()) && npc.getInteracting() == client.getLocalPlayer())
@@ -224,7 +248,23 @@ public class KittenTrackerPlugin extends Plugin
     @Subscribe
     public void onConfigChanged(ConfigChanged event)
     {
-        if (event.getGroup().equals(CONFIG_GROUP) && event.getKey().equals("resetTimersButton"))
+        if (event.getGroup().equals(CONFIG_GROUP) && event.getKey().equals(SHARED_STATE_KEY))
+        {
+            clientThread.invoke(() ->
+            {
+                if (config.sharedState())
+                {
+                    openSharedState();
+                    invalidateConfigOwnerTimers();
+                }
+                else
+                {
+                    copySharedTimersToConfig();
+                    closeSharedState();
+                }
+            });
+        }
+        else if (event.getGroup().equals(CONFIG_GROUP) && event.getKey().equals("resetTimersButton"))
         {
             if (Boolean.parseBoolean(event.getNewValue()))
             {
@@ -300,6 +340,19 @@ public class KittenTrackerPlugin extends Plugin
 
     private void saveTimers()
     {
+        long accountHash = getAccountHash();
+        KittenTrackerSharedState shared = sharedState;
+        if (shared != null)
+        {
+            if (saveSharedTimers(shared, accountHash))
+            {
+                log.debug("Kitten timers (paused state) saved to shared state.");
+                return;
+            }
+            // The config copy below is now the newest; make sure the old shared record can't win on load.
+            invalidateSharedTimers(shared, accountHash);
+        }
+
         Duration hungerRemaining = calculateTimeRemaining(lastFedTime, HUNGER_TIME);
         if (hungerRemaining != null)
         {
@@ -323,13 +376,44 @@ public class KittenTrackerPlugin extends Plugin
         {
             configManager.setConfiguration(CONFIG_GROUP, CURRENT_ATTENTION_KEY, currentAttentionDuration.toMillis());
         }
+        setConfigOwner(accountHash);
 
         log.debug("Kitten timers (paused state) saved.");
     }
 
     private void loadTimers()
     {
-        Long hungerRemainingMillis = configManager.getConfiguration(CONFIG_GROUP, REMAINING_HUNGER_KEY, Long.class);
+        Long hungerRemainingMillis;
+        Long attentionRemainingMillis;
+        Long currentAttentionMillis;
+        Long syncedGrowthMillis;
+
+        long accountHash = getAccountHash();
+        KittenTrackerSharedState shared = sharedState;
+        long[] record = shared != null ? shared.read(accountHash) : null;
+        if (record != null)
+        {
+            hungerRemainingMillis = fromShared(record[KittenTrackerSharedState.HUNGER]);
+            attentionRemainingMillis = fromShared(record[KittenTrackerSharedState.ATTENTION]);
+            currentAttentionMillis = fromShared(record[KittenTrackerSharedState.CURRENT_ATTENTION]);
+            syncedGrowthMillis = fromShared(record[KittenTrackerSharedState.GROWTH]);
+        }
+        else if (shared != null && !claimConfigTimers(accountHash))
+        {
+            // The config keys hold another account's timers; start this one fresh.
+            hungerRemainingMillis = null;
+            attentionRemainingMillis = null;
+            currentAttentionMillis = null;
+            syncedGrowthMillis = null;
+        }
+        else
+        {
+            hungerRemainingMillis = configManager.getConfiguration(CONFIG_GROUP, REMAINING_HUNGER_KEY, Long.class);
+            attentionRemainingMillis = configManager.getConfiguration(CONFIG_GROUP, REMAINING_ATTENTION_KEY, Long.class);
+            currentAttentionMillis = configManager.getConfiguration(CONFIG_GROUP, CURRENT_ATTENTION_KEY, Long.class);
+            syncedGrowthMillis = configManager.getConfiguration(CONFIG_GROUP, SYNCED_GROWTH_KEY, Long.class);
+        }
+
         if (hungerRemainingMillis != null)
         {
             Duration hungerRemaining = Duration.ofMillis(hungerRemainingMillis);
@@ -337,8 +421,6 @@ public class KittenTrackerPlugin extends Plugin
             hungerNotificationSent = hungerRemaining.compareTo(HUNGER_NOTIFICATION_THRESHOLD) <= 0;
         }
 
-        Long attentionRemainingMillis = configManager.getConfiguration(CONFIG_GROUP, REMAINING_ATTENTION_KEY, Long.class);
-        Long currentAttentionMillis = configManager.getConfiguration(CONFIG_GROUP, CURRENT_ATTENTION_KEY, Long.class);
         if (attentionRemainingMillis != null && currentAttentionMillis != null)
         {
             Duration attentionRemaining = Duration.ofMillis(attentionRemainingMillis);
@@ -347,7 +429,6 @@ public class KittenTrackerPlugin extends Plugin
             attentionNotificationSent = attentionRemaining.compareTo(ATTENTION_NOTIFICATION_THRESHOLD) <= 0;
         }
 
-        Long syncedGrowthMillis = configManager.getConfiguration(CONFIG_GROUP, SYNCED_GROWTH_KEY, Long.class);
         if (syncedGrowthMillis != null)
         {
             syncedGrowthDuration = Duration.ofMillis(syncedGrowthMillis);
@@ -371,11 +452,198 @@ public class KittenTrackerPlugin extends Plugin
         configManager.unsetConfiguration(CONFIG_GROUP, REMAINING_ATTENTION_KEY);
         configManager.unsetConfiguration(CONFIG_GROUP, SYNCED_GROWTH_KEY);
         configManager.unsetConfiguration(CONFIG_GROUP, CURRENT_ATTENTION_KEY);
+        KittenTrackerSharedState shared = sharedState;
+        if (shared != null)
+        {
+            long accountHash = getAccountHash();
+            if (accountHash == KittenTrackerSharedState.LOGGED_OUT_ACCOUNT)
+            {
+                log.warn("No account logged in this session; shared kitten timers were not reset.");
+                notifier.notify("Log in, then reset again to clear your kitten's shared timers.");
+            }
+            else if (!shared.clear(accountHash))
+            {
+                invalidateSharedTimers(shared, accountHash);
+            }
+        }
 
         log.debug("All kitten timers have been reset.");
         updateTimersForOverlay();
     }
 
+    /**
+     * Writes the paused timers to the shared state file, if it is enabled.
+     * Returns false when the caller should fall back to saving them in the config instead.
+     */
+    private boolean saveSharedTimers(KittenTrackerSharedState shared, long accountHash)
+    {
+        Duration hungerRemaining = calculateTimeRemaining(lastFedTime, HUNGER_TIME);
+        Duration attentionRemaining = calculateTimeRemaining(lastAttentionTime, currentAttentionDuration);
+        Duration totalGrowth = null;
+        if (growthSyncTime != null && syncedGrowthDuration != null)
+        {
+            totalGrowth = syncedGrowthDuration.plus(Duration.between(growthSyncTime, Instant.now()));
+        }
+
+        long[] fields = new long[KittenTrackerSharedState.FIELD_COUNT];
+        fields[KittenTrackerSharedState.HUNGER] = toShared(hungerRemaining);
+        fields[KittenTrackerSharedState.ATTENTION] = toShared(attentionRemaining);
+        fields[KittenTrackerSharedState.GROWTH] = toShared(totalGrowth);
+        fields[KittenTrackerSharedState.CURRENT_ATTENTION] = toShared(currentAttentionDuration);
+        return shared.write(accountHash, fields);
+    }
+
+    private void invalidateSharedTimers(KittenTrackerSharedState shared, long accountHash)
+    {
+        if (!shared.invalidate(accountHash))
+        {
+            log.warn("Unable to invalidate shared kitten state; it may hold older timers than the config.");
+        }
+    }
+
+    /**
+     * Moves the current account's shared record into the config keys when the shared state is
+     * turned off, since nothing was written to the config while it was on.
+     */
+    private void copySharedTimersToConfig()
+    {
+        KittenTrackerSharedState shared = sharedState;
+        if (shared == null)
+        {
+            return;
+        }
+
+        long accountHash = getAccountHash();
+        if (accountHash == KittenTrackerSharedState.LOGGED_OUT_ACCOUNT)
+        {
+            log.warn("No account logged in this session; shared kitten timers were not copied to the config.");
+            return;
+        }
+        long[] record = shared.read(accountHash);
+        if (record == null)
+        {
+            return;
+        }
+        copySharedField(REMAINING_HUNGER_KEY, record[KittenTrackerSharedState.HUNGER]);
+        copySharedField(REMAINING_ATTENTION_KEY, record[KittenTrackerSharedState.ATTENTION]);
+        copySharedField(SYNCED_GROWTH_KEY, record[KittenTrackerSharedState.GROWTH]);
+        copySharedField(CURRENT_ATTENTION_KEY, record[KittenTrackerSharedState.CURRENT_ATTENTION]);
+        setConfigOwner(accountHash);
+
+        // Don't let this record resurface over newer config timers if the option is turned back on.
+        invalidateSharedTimers(shared, accountHash);
+        log.debug("Kitten timers copied from shared state to config.");
+    }
+
+    /**
+     * Returns the logged-in account's hash, or the last one seen this session while logged out.
+     */
+    private long getAccountHash()
+    {
+        long accountHash = client.getAccountHash();
+        if (accountHash != KittenTrackerSharedState.LOGGED_OUT_ACCOUNT)
+        {
+            lastAccountHash = accountHash;
+            return accountHash;
+        }
+        return lastAccountHash;
+    }
+
+    /**
+     * The config keys are global, so remember which account last saved to them. With the shared
+     * state on, only that account may load them; the first account to load keys saved before this
+     * was tracked takes them over once.
+     */
+    private boolean claimConfigTimers(long accountHash)
+    {
+        Long owner = configManager.getConfiguration(CONFIG_GROUP, TIMERS_ACCOUNT_KEY, Long.class);
+        if (owner == null)
+        {
+            setConfigOwner(accountHash);
+            return true;
+        }
+        return owner == accountHash;
+    }
+
+    private void setConfigOwner(long accountHash)
+    {
+        if (accountHash != KittenTrackerSharedState.LOGGED_OUT_ACCOUNT)
+        {
+            configManager.setConfiguration(CONFIG_GROUP, TIMERS_ACCOUNT_KEY, accountHash);
+        }
+    }
+
+    /**
+     * When the shared state is turned on, the config holds the newest timers for the account that
+     * last saved to it, so drop that account's older shared record.
+     */
+    private void invalidateConfigOwnerTimers()
+    {
+        KittenTrackerSharedState shared = sharedState;
+        Long owner = configManager.getConfiguration(CONFIG_GROUP, TIMERS_ACCOUNT_KEY, Long.class);
+        if (shared != null && owner != null)
+        {
+            invalidateSharedTimers(shared, owner);
+        }
+    }
+
+    private void copySharedField(String key, long millis)
+    {
+        if (millis != KittenTrackerSharedState.UNSET)
+        {
+            configManager.setConfiguration(CONFIG_GROUP, key, millis);
+        }
+        else
+        {
+            configManager.unsetConfiguration(CONFIG_GROUP, key);
+        }
+    }
+
+    private static long toShared(Duration duration)
+    {
+        return duration != null ? duration.toMillis() : KittenTrackerSharedState.UNSET;
+    }
+
+    private static Long fromShared(long millis)
+    {
+        return millis != KittenTrackerSharedState.UNSET ? millis : null;
+    }
+
+    private void openSharedState()
+    {
+        if (sharedState != null)
+        {
+            return;
+        }
+        try
+        {
+            sharedState = new KittenTrackerSharedState(SHARED_STATE_FILE);
+            log.debug("Opened shared kitten state at {}", SHARED_STATE_FILE);
+        }
+        catch (IOException e)
+        {
+            log.warn("Unable to open shared kitten state, falling back to config storage.", e);
+        }
+    }
+
+    private void closeSharedState()
+    {
+        KittenTrackerSharedState shared = sharedState;
+        if (shared == null)
+        {
+            return;
+        }
+        sharedState = null;
+        try
+        {
+            shared.close();
+        }
+        catch (IOException e)
+        {
+            log.warn("Unable to close shared kitten state.", e);
+        }
+    }
+
     public boolean isKittenFollowing()
     {
         return kittenFollowing;
@@ -0,0 +1,313 @@
+// File: KittenTrackerSharedState.java
+// This file holds the optional shared-state backend. It lets several
+// RuneLite clients on the same machine see the same kitten timers through
+// a small memory-mapped file instead of the shared config keys.
+
+package com.KittenTracker;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+class KittenTrackerSharedState implements AutoCloseable
+{
+    static final long UNSET = -1L;
+
+    static final int HUNGER = 0;
+    static final int ATTENTION = 1;
+    static final int GROWTH = 2;
+    static final int CURRENT_ATTENTION = 3;
+    static final int FIELD_COUNT = 4;
+
+    static final int SLOT_COUNT = 64;
+
+    // What Client#getAccountHash returns while logged out.
+    static final long LOGGED_OUT_ACCOUNT = -1L;
+
+    private static final long MAGIC = 0x4B49_5454_454E_0002L; // "KITTEN" + layout version 2
+
+    // Header: magic. Each slot: sequence, account hash, valid flag, then the timer fields.
+    static final int HEADER_SIZE = 64;
+    static final int SLOT_SIZE = 64;
+    private static final int FILE_SIZE = HEADER_SIZE + SLOT_SIZE * SLOT_COUNT;
+
+    static final int SEQUENCE_OFFSET = 0;
+    private static final int ACCOUNT_OFFSET = Long.BYTES;
+    private static final int VALID_OFFSET = Long.BYTES * 2;
+    private static final int FIELDS_OFFSET = Long.BYTES * 3;
+
+    private static final long EMPTY_ACCOUNT = 0L;
+
+    // Writers only hold a slot for a handful of stores, so this is plenty for a live one to finish.
+    private static final int MAX_SPINS = 100;
+    // A slot locked for longer than this belongs to a client that died or was suspended mid-write.
+    private static final long STALE_LOCK_MILLIS = 1000;
+
+    static final ByteOrder BYTE_ORDER = ByteOrder.nativeOrder();
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, BYTE_ORDER);
+
+    private final FileChannel channel;
+    private volatile MappedByteBuffer buffer;
+
+    KittenTrackerSharedState(File file) throws IOException
+    {
+        channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try
+        {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+
+            // Whichever client maps the file first stamps it; everyone else just checks the stamp.
+            long magic = (long) LONGS.compareAndExchange(buffer, 0, 0L, MAGIC);
+            if (magic != 0L && magic != MAGIC)
+            {
+                throw new IOException("Unrecognised shared state file: " + file);
+            }
+        }
+        catch (IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads a consistent snapshot of the timers stored for the given account.
+     * Returns null if nothing valid is stored, or if a live writer held the slot for too long.
+     */
+    long[] read(long accountHash)
+    {
+        MappedByteBuffer buffer = this.buffer;
+        if (buffer == null)
+        {
+            return null;
+        }
+        int slot = findSlot(buffer, accountHash, false);
+        if (slot < 0)
+        {
+            return null;
+        }
+
+        int base = slotOffset(slot);
+        long[] fields = new long[FIELD_COUNT];
+        for (int spin = 0; spin < MAX_SPINS; spin++)
+        {
+            long before = (long) LONGS.getAcquire(buffer, base + SEQUENCE_OFFSET);
+            if ((before & 1) == 0)
+            {
+                long valid = (long) LONGS.getOpaque(buffer, base + VALID_OFFSET);
+                for (int i = 0; i < FIELD_COUNT; i++)
+                {
+                    fields[i] = (long) LONGS.getOpaque(buffer, base + FIELDS_OFFSET + i * Long.BYTES);
+                }
+                VarHandle.acquireFence();
+                if ((long) LONGS.getVolatile(buffer, base + SEQUENCE_OFFSET) == before)
+                {
+                    return valid != 0 ? fields : null;
+                }
+            }
+            else if (isStale(before))
+            {
+                // The writer is gone and may have left a half-written record; the next write replaces it.
+                return null;
+            }
+            Thread.onSpinWait();
+        }
+        return null;
+    }
+
+    /**
+     * Publishes the timers for the given account. Unset fields should be passed as {@link #UNSET}.
+     * Returns true if the record was written or was replaced by a newer write from another client.
+     * Returns false if the record could not be written, in which case the caller should fall back
+     * to the config and {@link #invalidate} the slot.
+     */
+    boolean write(long accountHash, long[] fields)
+    {
+        MappedByteBuffer buffer = this.buffer;
+        if (buffer == null)
+        {
+            return false;
+        }
+        int slot = findSlot(buffer, accountHash, true);
+        return slot >= 0 && store(buffer, slotOffset(slot), fields);
+    }
+
+    /**
+     * Stores a record with every timer unset, as after a reset.
+     */
+    boolean clear(long accountHash)
+    {
+        long[] fields = new long[FIELD_COUNT];
+        Arrays.fill(fields, UNSET);
+        return write(accountHash, fields);
+    }
+
+    /**
+     * Marks the account's record as absent, so that {@link #read} returns null and the config
+     * is used instead. Returns true if there is no valid record left afterwards, and false for
+     * an account that can never own a slot.
+     */
+    boolean invalidate(long accountHash)
+    {
+        MappedByteBuffer buffer = this.buffer;
+        if (buffer == null || !isAccount(accountHash))
+        {
+            return false;
+        }
+        int slot = findSlot(buffer, accountHash, false);
+        return slot < 0 || store(buffer, slotOffset(slot), null);
+    }
+
+    /**
+     * Closes the file and drops the mapping so this instance can no longer be used.
+     * Java offers no way to unmap the buffer itself; the file stays mapped until it is
+     * garbage-collected, and on Windows it cannot be deleted or replaced until then.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        buffer = null;
+        channel.close();
+    }
+
+    /**
+     * Takes the slot's sequence lock, writes the record (or invalidates it when fields is null)
+     * and releases the lock.
+     * <p>
+     * A writer paused for longer than {@link #STALE_LOCK_MILLIS} can have its lock taken over by
+     * another writer. It checks that it still holds the lock before every store and stops as soon
+     * as it doesn't, leaving the newer record in place. A pause that lands exactly between a check
+     * and its store can still overwrite one field of the newer record.
+     */
+    private static boolean store(MappedByteBuffer buffer, int base, long[] fields)
+    {
+        long locked = lock(buffer, base);
+        if (locked == 0L)
+        {
+            return false;
+        }
+        // Keep the record stores below from becoming visible before the slot reads as locked.
+        VarHandle.releaseFence();
+
+        // If the lock has been taken over as stale, the new holder's record wins.
+        if (fields != null)
+        {
+            for (int i = 0; i < FIELD_COUNT; i++)
+            {
+                if (!holdsLock(buffer, base, locked))
+                {
+                    return true;
+                }
+                LONGS.setOpaque(buffer, base + FIELDS_OFFSET + i * Long.BYTES, fields[i]);
+            }
+        }
+        if (!holdsLock(buffer, base, locked))
+        {
+            return true;
+        }
+        LONGS.setOpaque(buffer, base + VALID_OFFSET, fields != null ? 1L : 0L);
+
+        // Failing here also means the lock was taken over, after every store had landed.
+        LONGS.compareAndSet(buffer, base + SEQUENCE_OFFSET, locked, locked + 1);
+        return true;
+    }
+
+    /**
+     * The sequence is twice the time the slot was last locked, plus one while it is locked, so
+     * a stuck lock can be recognised by its age. The lock time never goes backwards, so every
+     * lock and release still moves the sequence forward. Returns the locked sequence, or 0 if a
+     * live writer kept the slot for too long.
+     */
+    private static long lock(MappedByteBuffer buffer, int base)
+    {
+        for (int spin = 0; spin < MAX_SPINS; spin++)
+        {
+            long sequence = (long) LONGS.getVolatile(buffer, base + SEQUENCE_OFFSET);
+            if ((sequence & 1) == 0 || isStale(sequence))
+            {
+                long lockedAt = Math.max(System.currentTimeMillis(), sequence >> 1);
+                long locked = (lockedAt << 1) | 1;
+                if (LONGS.compareAndSet(buffer, base + SEQUENCE_OFFSET, sequence, locked))
+                {
+                    return locked;
+                }
+            }
+            Thread.onSpinWait();
+        }
+        return 0L;
+    }
+
+    private static boolean holdsLock(MappedByteBuffer buffer, int base, long locked)
+    {
+        return (long) LONGS.getVolatile(buffer, base + SEQUENCE_OFFSET) == locked;
+    }
+
+    private static boolean isStale(long sequence)
+    {
+        return (sequence & 1) != 0 && System.currentTimeMillis() - (sequence >> 1) > STALE_LOCK_MILLIS;
+    }
+
+    /**
+     * Finds the slot owned by the account using linear probing, optionally claiming an empty one.
+     * Slots are never released, so a claimed slot keeps belonging to the same account.
+     */
+    private static int findSlot(MappedByteBuffer buffer, long accountHash, boolean claim)
+    {
+        if (!isAccount(accountHash))
+        {
+            return -1;
+        }
+
+        int start = homeSlot(accountHash);
+        for (int i = 0; i < SLOT_COUNT; i++)
+        {
+            int slot = (start + i) % SLOT_COUNT;
+            int accountOffset = slotOffset(slot) + ACCOUNT_OFFSET;
+            long owner = (long) LONGS.getVolatile(buffer, accountOffset);
+            if (owner == EMPTY_ACCOUNT)
+            {
+                if (!claim)
+                {
+                    return -1;
+                }
+                owner = (long) LONGS.compareAndExchange(buffer, accountOffset, EMPTY_ACCOUNT, accountHash);
+                if (owner == EMPTY_ACCOUNT)
+                {
+                    return slot;
+                }
+            }
+            if (owner == accountHash)
+            {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isAccount(long accountHash)
+    {
+        // 0 marks an empty slot, so neither it nor the logged-out hash can own one.
+        return accountHash != EMPTY_ACCOUNT && accountHash != LOGGED_OUT_ACCOUNT;
+    }
+
+    /**
+     * The slot probing starts from for the account.
+     */
+    static int homeSlot(long accountHash)
+    {
+        return Math.floorMod(Long.hashCode(accountHash), SLOT_COUNT);
+    }
+
+    static int slotOffset(int slot)
+    {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+}
@@ -0,0 +1,158 @@
+package com.KittenTracker;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class KittenTrackerSharedStateTest
+{
+    private static final long ACCOUNT = 123456789L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private KittenTrackerSharedState first;
+    private KittenTrackerSharedState second;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        file = new File(folder.getRoot(), "kittentracker-state.dat");
+        first = new KittenTrackerSharedState(file);
+        second = new KittenTrackerSharedState(file);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void testWriteIsVisibleToOtherMapping()
+    {
+        long[] fields = {1000, 2000, 3000, 4000};
+        assertNull(second.read(ACCOUNT));
+        assertTrue(first.write(ACCOUNT, fields));
+        assertArrayEquals(fields, second.read(ACCOUNT));
+    }
+
+    @Test
+    public void testClearUnsetsEveryField()
+    {
+        assertTrue(first.write(ACCOUNT, new long[]{1000, 2000, 3000, 4000}));
+        assertTrue(first.clear(ACCOUNT));
+        long[] unset = {KittenTrackerSharedState.UNSET, KittenTrackerSharedState.UNSET,
+                KittenTrackerSharedState.UNSET, KittenTrackerSharedState.UNSET};
+        assertArrayEquals(unset, second.read(ACCOUNT));
+    }
+
+    @Test
+    public void testInvalidateHidesRecord()
+    {
+        assertTrue(first.write(ACCOUNT, new long[]{1000, 2000, 3000, 4000}));
+        assertTrue(first.invalidate(ACCOUNT));
+        assertNull(second.read(ACCOUNT));
+    }
+
+    @Test
+    public void testRejectsLoggedOutAndEmptyAccounts()
+    {
+        long[] fields = {1000, 2000, 3000, 4000};
+        assertFalse(first.write(KittenTrackerSharedState.LOGGED_OUT_ACCOUNT, fields));
+        assertFalse(first.write(0L, fields));
+        assertNull(first.read(KittenTrackerSharedState.LOGGED_OUT_ACCOUNT));
+        assertNull(first.read(0L));
+    }
+
+    @Test
+    public void testInvalidateRejectsLoggedOutAccount()
+    {
+        assertTrue(first.write(ACCOUNT, new long[]{1000, 2000, 3000, 4000}));
+        assertFalse(first.invalidate(KittenTrackerSharedState.LOGGED_OUT_ACCOUNT));
+        assertFalse(first.invalidate(0L));
+        assertTrue(first.invalidate(ACCOUNT + 1));
+        assertArrayEquals(new long[]{1000, 2000, 3000, 4000}, second.read(ACCOUNT));
+    }
+
+    @Test
+    public void testWriteFailsWhenAllSlotsTaken()
+    {
+        long[] fields = {1000, 2000, 3000, 4000};
+        for (int i = 1; i <= KittenTrackerSharedState.SLOT_COUNT; i++)
+        {
+            assertTrue(first.write(i, fields));
+        }
+        assertFalse(first.write(KittenTrackerSharedState.SLOT_COUNT + 1, fields));
+        assertTrue(first.write(1, fields));
+    }
+
+    @Test
+    public void testRecoversStaleLock() throws Exception
+    {
+        long[] fields = {1000, 2000, 3000, 4000};
+        assertTrue(first.write(ACCOUNT, fields));
+
+        // Simulate a client that died holding the lock a minute ago.
+        long staleLock = ((System.currentTimeMillis() - 60_000) << 1) | 1;
+        int sequenceOffset = KittenTrackerSharedState.slotOffset(KittenTrackerSharedState.homeSlot(ACCOUNT))
+                + KittenTrackerSharedState.SEQUENCE_OFFSET;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, sequenceOffset + Long.BYTES);
+            buffer.order(KittenTrackerSharedState.BYTE_ORDER).putLong(sequenceOffset, staleLock);
+        }
+
+        assertNull(second.read(ACCOUNT));
+        assertTrue(second.write(ACCOUNT, fields));
+        assertArrayEquals(fields, first.read(ACCOUNT));
+    }
+
+    @Test
+    public void testConcurrentReadsAreNeverTorn() throws Exception
+    {
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<long[]> torn = new AtomicReference<>();
+
+        Thread writer = new Thread(() ->
+        {
+            for (long i = 1; i <= 50_000; i++)
+            {
+                first.write(ACCOUNT, new long[]{i, i, i, i});
+            }
+            done.set(true);
+        });
+        Thread reader = new Thread(() ->
+        {
+            while (!done.get() && torn.get() == null)
+            {
+                long[] record = second.read(ACCOUNT);
+                if (record != null && (record[1] != record[0] || record[2] != record[0] || record[3] != record[0]))
+                {
+                    torn.set(record);
+                }
+            }
+        });
+
+        writer.start();
+        reader.start();
+        writer.join();
+        reader.join();
+
+        assertNull(torn.get());
+    }
+}